@@ -0,0 +1,222 @@
+package edu.auburn.lib.stats;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Finds duplicate submissions from the stats web form.
+ * <p>
+ * A double-submit repeats the whole row except the timestamp, so a row is a
+ * duplicate when every column other than column A matches a counted row whose
+ * timestamp is within the configured window. Rows are only compared against
+ * counted rows, so a run of repeats does not chain.
+ * <p>
+ * The stats log is appended as transactions arrive, so rows are scanned in a
+ * single pass that keeps, for each distinct row seen within the last two
+ * windows, a key wrapping the existing row array and the newest counted
+ * timestamp. Older entries are dropped, which keeps the working set to the
+ * rows submitted in that span. A row more than one window older than the
+ * newest timestamp seen is late; late rows are set aside and checked after the
+ * scan against every counted row with the same columns. Only those columns'
+ * counted timestamps are held during that check. Rows with malformed
+ * timestamps are never duplicates.
+ *
+ * @author Zekoff
+ *
+ */
+public class DuplicateFilter {
+	private final long window;
+	private final SimpleDateFormat dateFormat;
+
+	/**
+	 * @param window
+	 *            The window, in milliseconds, within which identical rows are
+	 *            treated as duplicates.
+	 * @param dateFormat
+	 *            The format of the timestamps in column A.
+	 */
+	public DuplicateFilter(long window, SimpleDateFormat dateFormat) {
+		this.window = window;
+		this.dateFormat = dateFormat;
+	}
+
+	/**
+	 * Scans the rows for duplicate submissions.
+	 *
+	 * @param rows
+	 *            The rows of the stats file, in file order.
+	 * @return The indices of the rows that should not be counted.
+	 */
+	public BitSet findDuplicates(List<String[]> rows) {
+		BitSet duplicates = new BitSet(rows.size());
+		BitSet late = new BitSet(rows.size());
+		LinkedHashMap<RowKey, Counted> recent = new LinkedHashMap<RowKey, Counted>();
+		long newest = Long.MIN_VALUE;
+
+		for (int i = 0; i < rows.size(); i++) {
+			String[] row = rows.get(i);
+			long time;
+			try {
+				time = dateFormat.parse(row[0]).getTime();
+			} catch (ParseException e) {
+				continue;
+			}
+			if (newest != Long.MIN_VALUE && time < newest - window) {
+				late.set(i);
+				continue;
+			}
+			if (time > newest)
+				newest = time;
+
+			// Any counted row for this key within the window is either the
+			// newest one or no closer than it, so one timestamp per key is
+			// enough for rows that are not late
+			RowKey key = new RowKey(row);
+			Counted counted = recent.get(key);
+			if (counted != null && Math.abs(time - counted.time) <= window) {
+				duplicates.set(i);
+				continue;
+			}
+			if (counted == null) {
+				counted = new Counted();
+			} else {
+				// Move the entry to the tail so the map stays in time order
+				recent.remove(key);
+			}
+			counted.time = time;
+			recent.put(key, counted);
+
+			// An entry older than two windows can no longer match a row that
+			// is not late
+			Iterator<Counted> oldest = recent.values().iterator();
+			while (oldest.hasNext()) {
+				if (oldest.next().time >= newest - 2 * window)
+					break;
+				oldest.remove();
+			}
+		}
+
+		if (!late.isEmpty())
+			checkLateRows(rows, late, duplicates);
+		return duplicates;
+	}
+
+	/**
+	 * Checks each late row against every counted row with the same columns,
+	 * in file order. Late rows that are counted are added to the rows later
+	 * late rows are checked against.
+	 */
+	private void checkLateRows(List<String[]> rows, BitSet late,
+			BitSet duplicates) {
+		HashMap<RowKey, Times> counted = new HashMap<RowKey, Times>();
+		for (int i = late.nextSetBit(0); i >= 0; i = late.nextSetBit(i + 1))
+			counted.put(new RowKey(rows.get(i)), new Times());
+
+		for (int i = 0; i < rows.size(); i++) {
+			if (late.get(i) || duplicates.get(i))
+				continue;
+			Times times = counted.get(new RowKey(rows.get(i)));
+			if (times == null)
+				continue;
+			try {
+				times.add(dateFormat.parse(rows.get(i)[0]).getTime());
+			} catch (ParseException e) {
+			}
+		}
+		for (Times times : counted.values())
+			Arrays.sort(times.values, 0, times.size);
+
+		for (int i = late.nextSetBit(0); i >= 0; i = late.nextSetBit(i + 1)) {
+			long time;
+			try {
+				time = dateFormat.parse(rows.get(i)[0]).getTime();
+			} catch (ParseException e) {
+				continue;
+			}
+			Times times = counted.get(new RowKey(rows.get(i)));
+			int position = Arrays.binarySearch(times.values, 0, times.size,
+					time);
+			if (position >= 0) {
+				duplicates.set(i);
+				continue;
+			}
+			position = -position - 1;
+			if ((position > 0 && time - times.values[position - 1] <= window)
+					|| (position < times.size && times.values[position] - time <= window)) {
+				duplicates.set(i);
+				continue;
+			}
+			times.insert(position, time);
+		}
+	}
+
+	/**
+	 * Wraps a row so that it can be used as a map key on every column except
+	 * column A, without copying the row.
+	 */
+	private static class RowKey {
+		final String[] row;
+		final int hash;
+
+		RowKey(String[] row) {
+			this.row = row;
+			int h = 1;
+			for (int i = 1; i < row.length; i++)
+				h = 31 * h + (row[i] == null ? 0 : row[i].hashCode());
+			hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RowKey))
+				return false;
+			String[] other = ((RowKey) obj).row;
+			if (other.length != row.length)
+				return false;
+			for (int i = 1; i < row.length; i++)
+				if (row[i] == null ? other[i] != null : !row[i]
+						.equals(other[i]))
+					return false;
+			return true;
+		}
+	}
+
+	/**
+	 * The newest counted timestamp for a row key.
+	 */
+	private static class Counted {
+		long time;
+	}
+
+	/**
+	 * A growable list of counted timestamps for a row key.
+	 */
+	private static class Times {
+		long[] values = new long[4];
+		int size;
+
+		void add(long time) {
+			insert(size, time);
+		}
+
+		void insert(int position, long time) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			System.arraycopy(values, position, values, position + 1, size
+					- position);
+			values[position] = time;
+			size++;
+		}
+	}
+}
@@ -32,6 +32,7 @@ public class StatsGUI {
 	private JComboBox comboContactPoint;
 	private JComboBox comboReadScale;
 	private JComboBox comboTransactionType;
+	private JComboBox comboDuplicateWindow;
 	private JButton btnExportToCsv;
 	private JEditorPane textPane;
 
@@ -61,6 +62,12 @@ public class StatsGUI {
 		comboContactPoint.addActionListener(parser);
 		comboReadScale.addActionListener(parser);
 		comboTransactionType.addActionListener(parser);
+		comboDuplicateWindow.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				parser.changeDuplicateWindow();
+			}
+		});
 		btnExportToCsv.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
@@ -117,6 +124,24 @@ public class StatsGUI {
 		endDateWidget.setDateFormatString("MM/dd/yy");
 		panel.add(endDateWidget);
 
+		JLabel lblDuplicateWindow = new JLabel("Ignore duplicates within:");
+		lblDuplicateWindow.setBounds(10, 199, 130, 14);
+		panel.add(lblDuplicateWindow);
+
+		comboDuplicateWindow = new JComboBox();
+		comboDuplicateWindow.setBounds(0, 213, 185, 20);
+		String[] duplicateWindows = new String[StatsParser.DEDUP_WINDOW_SECONDS.length];
+		for (int i = 0; i < duplicateWindows.length; i++) {
+			if (StatsParser.DEDUP_WINDOW_SECONDS[i] == 0)
+				duplicateWindows[i] = StatsParser.DEDUP_OFF;
+			else
+				duplicateWindows[i] = StatsParser.DEDUP_WINDOW_SECONDS[i]
+						+ " seconds";
+		}
+		comboDuplicateWindow.setModel(new DefaultComboBoxModel(
+				duplicateWindows));
+		panel.add(comboDuplicateWindow);
+
 		JLabel lblContactPoint = new JLabel("Contact Point:");
 		lblContactPoint.setBounds(10, 243, 69, 14);
 		panel.add(lblContactPoint);
@@ -226,6 +251,14 @@ public class StatsGUI {
 		return comboTransactionType.getSelectedItem().toString();
 	}
 
+	public String getDuplicateWindow() {
+		return comboDuplicateWindow.getSelectedItem().toString();
+	}
+
+	public int getDuplicateWindowIndex() {
+		return comboDuplicateWindow.getSelectedIndex();
+	}
+
 	protected JFrame getFrame() {
 		return frmLibraryStatsTool;
 	}
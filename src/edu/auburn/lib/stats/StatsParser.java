@@ -13,6 +13,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
@@ -43,6 +44,12 @@ import au.com.bytecode.opencsv.CSVWriter;
  * CONTACT_POINTS field.</li>
  * </ul>
  * <p>
+ * The web form sometimes double-submits. When a duplicate window is selected,
+ * rows identical to a counted row in every column except the timestamp and
+ * submitted within that many seconds of it are not counted (see
+ * {@link DuplicateFilter}). Only suppressed rows that match the other filters
+ * are reported.
+ * <p>
  * Note that if errors are present in the fields, individual filters may not
  * register some transactions. This utility depends on "good behavior" from the
  * web interface for stat logging. To get transaction records of all well-formed
@@ -62,10 +69,15 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 	static final String TRANS_EMAIL = "Email";
 	static final String TRANS_CHAT = "Chat";
 	static final String TRANS_TEXT = "Text";
+	static final String DEDUP_OFF = "Off";
+	static final int[] DEDUP_WINDOW_SECONDS = new int[] { 0, 5, 10, 30, 60 };
+	static final String TIMESTAMP_FORMAT = "MM/dd/yy hh:mm:ss";
 
 	private StatsGUI gui;
 	private List<String[]> rows;
 	private HashMap<String, HashMap<String, Integer>> timeslots;
+	private int suppressedTransactions;
+	private BitSet duplicateRows;
 	private SimpleDateFormat dateConverter;
 	private SimpleDateFormat hourConverter;
 	private JFileChooser fileChooser;
@@ -112,7 +124,25 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 					JOptionPane.ERROR_MESSAGE);
 			System.exit(1);
 		}
+		duplicateRows = null;
+
+	}
 
+	/**
+	 * Called when the duplicate window changes. Discards the cached duplicate
+	 * rows, which depend on the window, and refreshes the display.
+	 */
+	public void changeDuplicateWindow() {
+		duplicateRows = null;
+		updateDisplay();
+	}
+
+	/**
+	 * @return The selected duplicate window in milliseconds, or 0 if duplicate
+	 *         suppression is off.
+	 */
+	private long getDuplicateWindow() {
+		return DEDUP_WINDOW_SECONDS[gui.getDuplicateWindowIndex()] * 1000L;
 	}
 
 	/**
@@ -126,8 +156,16 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 		// Instantiate iteration variables
 		Date testDate = null;
 		int totalTransactions = 0;
+		suppressedTransactions = 0;
 		timeslots = new HashMap<String, HashMap<String, Integer>>();
-		SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yy hh:mm:ss");
+		SimpleDateFormat dateFormat = new SimpleDateFormat(TIMESTAMP_FORMAT);
+
+		// Find double submissions once per file and window; they do not
+		// depend on the other filters
+		long window = getDuplicateWindow();
+		if (window != 0 && duplicateRows == null)
+			duplicateRows = new DuplicateFilter(window, new SimpleDateFormat(
+					TIMESTAMP_FORMAT)).findDuplicates(rows);
 
 		// get begin date filter
 		Calendar beginDate = null;
@@ -152,7 +190,9 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 		}
 
 		// Iterate through rows
+		int index = -1;
 		for (String[] row : rows) {
+			index++;
 			try {
 				testDate = dateFormat.parse(row[0]);
 			} catch (ParseException e) {
@@ -217,7 +257,13 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 					continue;
 			}
 
-			// All filters match; log this transaction
+			// All filters match; skip double submissions
+			if (window != 0 && duplicateRows.get(index)) {
+				suppressedTransactions++;
+				continue;
+			}
+
+			// Log this transaction
 			totalTransactions++;
 
 			// Do date-specific timeslot sorting
@@ -225,6 +271,9 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 		}
 		System.out.println("Total transactions: "
 				+ Integer.toString(totalTransactions));
+		if (window != 0)
+			System.out.println("Duplicates suppressed: "
+					+ Integer.toString(suppressedTransactions));
 
 		StringBuilder display = new StringBuilder();
 		display.append("<p style='background-color: #496e9c; color: white; padding: 10px; margin-top:0;'>");
@@ -234,6 +283,10 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 				+ "</strong><br/>");
 		display.append("Transaction type: <strong>" + gui.getTransactionType()
 				+ "</strong>");
+		if (window != 0)
+			display.append("<br/>Duplicates suppressed: <strong>"
+					+ suppressedTransactions + "</strong> (within "
+					+ gui.getDuplicateWindow() + ")");
 		display.append("</p>");
 		sortedDayKeys = new ArrayList<String>(timeslots.keySet());
 		Collections.sort(sortedDayKeys, new StatsDayComparator());
@@ -325,10 +378,17 @@ public class StatsParser implements PropertyChangeListener, ActionListener {
 				} catch (NullPointerException e) {
 					writer.writeNext(new String[] { "No end date specified" });
 				}
-				writer.writeNext(new String[] {
+				List<String> filters = new ArrayList<String>(Arrays.asList(
 						"Contact point: " + gui.getContactPoint(),
 						"READ scale: " + gui.getReadScale(),
-						"Transaction type: " + gui.getTransactionType() });
+						"Transaction type: " + gui.getTransactionType()));
+				if (getDuplicateWindow() != 0) {
+					filters.add("Ignore duplicates within: "
+							+ gui.getDuplicateWindow());
+					filters.add("Duplicates suppressed: "
+							+ suppressedTransactions);
+				}
+				writer.writeNext(filters.toArray(new String[0]));
 				writer.writeNext(new String[] { "" });
 				String[] row = new String[sortedDayKeys.size() + 1];
 				row[0] = "";